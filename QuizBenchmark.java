@@ -0,0 +1,209 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+// measures connect rate and per-message round trip against a running QuizServer
+// run once with and once without -Dquiz.tls=true to compare the two transports
+// with a flooder count it also acts as load generator and reports honest taker latency under flood
+public class QuizBenchmark {
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    // an honest taker stays well under the server's per-session command rate
+    private static final int HONEST_PACE_MS = 250;
+    private static final int FLOOD_BATCH = 64;
+
+    private String serverAddress;
+    private int port;
+
+    // constructor to initialize benchmark
+    public QuizBenchmark() {
+        loadServerAddress();
+    }
+
+    // load server address and port from server_info.dat file
+    private void loadServerAddress() {
+        try (BufferedReader br = new BufferedReader(new FileReader("server_info.dat"))) {
+            serverAddress = br.readLine().trim();
+            port = Integer.parseInt(br.readLine().trim());
+        } catch (IOException e) {
+            serverAddress = "localhost";
+            port = 1234;
+        }
+    }
+
+    // opens connection and performs TLS handshake if enabled
+    private Socket open() throws IOException {
+        Socket socket = QuizTls.createSocket();
+        socket.connect(new InetSocketAddress(serverAddress, port), CONNECT_TIMEOUT_MS);
+        socket.setTcpNoDelay(true);
+        QuizTls.handshake(socket, CONNECT_TIMEOUT_MS);
+        return socket;
+    }
+
+    // sends one request line and waits for its response
+    private static String roundTrip(PrintWriter out, BufferedReader in, String request) throws IOException {
+        out.println(request);
+        String response = in.readLine();
+        if (response == null) {
+            throw new EOFException("Server closed the connection");
+        }
+        return response;
+    }
+
+    // returns true for throttled, overloaded or rejected out-of-order requests
+    private static boolean isRejected(String response) {
+        return response.startsWith("429|") || response.startsWith("503|") || response.startsWith("400|");
+    }
+
+    // next command that keeps the session in protocol order
+    private static String nextRequest(String lastResponse) {
+        return lastResponse.startsWith("301|") ? "ANSWER|benchmark" : "QUIZ|REQUEST";
+    }
+
+    // connect, CONNECT|SERVER round trip and close, repeated sequentially
+    public void benchmarkConnects(int connections) throws IOException {
+        int rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            try (Socket socket = open()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                if (isRejected(roundTrip(out, in, "CONNECT|SERVER"))) {
+                    rejected++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Connects: %d in %.1f ms, %.1f connects/s, %.3f ms/connect, %d rejected%n",
+                connections, elapsed / 1e6, connections / (elapsed / 1e9), elapsed / 1e6 / connections, rejected);
+    }
+
+    // QUIZ|REQUEST and ANSWER round trips on a single established connection
+    public void benchmarkMessages(int messages) throws IOException {
+        try (Socket socket = open()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            String response = roundTrip(out, in, "CONNECT|SERVER");
+
+            int rejected = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                response = roundTrip(out, in, nextRequest(response));
+                if (isRejected(response)) {
+                    rejected++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Messages: %d in %.1f ms, %.1f us/round trip, %d rejected%n",
+                    messages, elapsed / 1e6, elapsed / 1e3 / messages, rejected);
+        }
+    }
+
+    // paced honest taker latency, optionally while flooders hammer the server
+    public void benchmarkFlood(int flooders, int seconds) throws IOException, InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder floodSent = new LongAdder();
+        LongAdder floodRejected = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < flooders; i++) {
+            Thread flooder = new Thread(() -> flood(running, floodSent, floodRejected), "flooder-" + i);
+            flooder.setDaemon(true);
+            flooder.start();
+            threads.add(flooder);
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        int rejected = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            // one socket per quiz, a new session starts once the final score arrives
+            try (Socket socket = open()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                String response = roundTrip(out, in, "CONNECT|SERVER");
+                while (!response.startsWith("501|") && System.nanoTime() < deadline) {
+                    Thread.sleep(HONEST_PACE_MS);
+                    long start = System.nanoTime();
+                    response = roundTrip(out, in, nextRequest(response));
+                    latencies.add(System.nanoTime() - start);
+                    if (isRejected(response)) {
+                        rejected++;
+                    }
+                }
+            }
+        }
+
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Collections.sort(latencies);
+        System.out.printf("Honest taker with %d flooders: %d requests, p50 %.3f ms, p99 %.3f ms, max %.3f ms, "
+                + "%d rejected; flood: %d sent, %d rejected%n",
+                flooders, latencies.size(), percentile(latencies, 0.50), percentile(latencies, 0.99),
+                percentile(latencies, 1.0), rejected, floodSent.sum(), floodRejected.sum());
+    }
+
+    // sends ANSWER lines in pipelined batches, ignoring protocol order
+    private void flood(AtomicBoolean running, LongAdder sent, LongAdder rejected) {
+        try (Socket socket = open()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+            while (running.get()) {
+                for (int i = 0; i < FLOOD_BATCH; i++) {
+                    out.println("ANSWER|flood");
+                }
+                out.flush();
+                for (int i = 0; i < FLOOD_BATCH; i++) {
+                    String response = in.readLine();
+                    if (response == null) {
+                        return;
+                    }
+                    if (isRejected(response)) {
+                        rejected.increment();
+                    }
+                }
+                sent.add(FLOOD_BATCH);
+            }
+        } catch (IOException e) {
+            System.err.println("Flooder stopped: " + e.getMessage());
+        }
+    }
+
+    // latency at given fraction of sorted samples in milliseconds
+    private static double percentile(List<Long> sorted, double fraction) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    // main method to run benchmark: [connections] [messages] [flooders] [seconds]
+    public static void main(String[] args) {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int flooders = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        QuizBenchmark benchmark = new QuizBenchmark();
+        System.out.println("Benchmarking " + benchmark.serverAddress + ":" + benchmark.port
+                + (QuizTls.isEnabled() ? " with TLS" : " without TLS"));
+        try {
+            // warm up JIT and, with TLS, the client session cache
+            benchmark.benchmarkConnects(Math.max(1, connections / 10));
+            benchmark.benchmarkConnects(connections);
+            benchmark.benchmarkMessages(messages);
+            if (flooders > 0) {
+                benchmark.benchmarkFlood(0, seconds);
+                benchmark.benchmarkFlood(flooders, seconds);
+            }
+        } catch (IOException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,26 +1,32 @@
 import java.io.*;
 import java.net.*;
+import java.util.Queue;
+import java.util.concurrent.*;
 
 public class QuizClient {
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 10000;
+    private static final int MAX_RECONNECT_ATTEMPTS = 3;
+    private static final int RECONNECT_BACKOFF_MS = 500;
+
     private String serverAddress;
     private int port;
 
-    private Socket socket;
-    private BufferedReader in;
+    private volatile Socket socket;
     private PrintWriter out;
 
-    // constructor to initialize client and connect to server
+    // requests waiting for a response, in the order they were sent
+    private final Queue<CompletableFuture<String>> pendingResponses = new ConcurrentLinkedQueue<>();
+    // single thread so that writes and their pending entries stay in the same order
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "QuizClient-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // constructor to initialize client, no network I/O is performed here
     public QuizClient() throws IOException {
         loadServerAddress();
-        try {
-            socket = new Socket(serverAddress, port);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
-            System.out.println("Connected to the server at " + serverAddress + ":" + port);
-        } catch (IOException e) {
-            System.err.println("Failed to connect to the server at " + serverAddress + ":" + port);
-            throw e;
-        }
     }
 
     // load server address and port from server_info.dat file
@@ -36,57 +42,186 @@ public class QuizClient {
         }
     }
 
+    // open socket to server on the I/O thread
+    public CompletableFuture<Void> connect() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                openSocket();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, ioExecutor);
+    }
+
+    // close current socket and try to open a new one with backoff
+    public CompletableFuture<Void> reconnect() {
+        return CompletableFuture.runAsync(() -> {
+            closeSocket();
+            IOException lastError = null;
+            for (int attempt = 1; attempt <= MAX_RECONNECT_ATTEMPTS; attempt++) {
+                try {
+                    openSocket();
+                    return;
+                } catch (IOException e) {
+                    lastError = e;
+                    System.err.println("Reconnect attempt " + attempt + " failed: " + e.getMessage());
+                    try {
+                        Thread.sleep((long) RECONNECT_BACKOFF_MS * attempt);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            throw new CompletionException(lastError);
+        }, ioExecutor);
+    }
+
+    // must be called on the I/O thread
+    private void openSocket() throws IOException {
+        Socket newSocket = QuizTls.createSocket();
+        BufferedReader newIn;
+        try {
+            newSocket.connect(new InetSocketAddress(serverAddress, port), CONNECT_TIMEOUT_MS);
+            newSocket.setTcpNoDelay(true);
+            QuizTls.handshake(newSocket, CONNECT_TIMEOUT_MS);
+            newIn = new BufferedReader(new InputStreamReader(newSocket.getInputStream()));
+            out = new PrintWriter(newSocket.getOutputStream(), true);
+            socket = newSocket;
+            System.out.println("Connected to the server at " + serverAddress + ":" + port);
+        } catch (IOException e) {
+            newSocket.close();
+            System.err.println("Failed to connect to the server at " + serverAddress + ":" + port);
+            throw e;
+        }
+
+        // each reader thread owns the stream of its own socket
+        Thread reader = new Thread(() -> readResponses(newSocket, newIn), "QuizClient-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // reads lines from the server and hands each one to the oldest pending request
+    private void readResponses(Socket readerSocket, BufferedReader reader) {
+        IOException failure = null;
+        try {
+            String response;
+            while ((response = reader.readLine()) != null) {
+                System.out.println("Received from server: " + response);
+                CompletableFuture<String> pending = pendingResponses.poll();
+                if (pending != null) {
+                    pending.complete(response);
+                } else {
+                    System.err.println("Unsolicited response from server: " + response);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (readerSocket == socket) {
+                failPendingResponses(failure != null ? failure : new EOFException("Server closed the connection"));
+                // close our side too so that later requests fail fast instead of timing out
+                try {
+                    ioExecutor.execute(() -> {
+                        if (socket == readerSocket) {
+                            closeSocket();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // client is shutting down
+                }
+            }
+        }
+    }
+
+    // completes every outstanding request exceptionally
+    private void failPendingResponses(Throwable cause) {
+        CompletableFuture<String> pending;
+        while ((pending = pendingResponses.poll()) != null) {
+            pending.completeExceptionally(cause);
+        }
+    }
+
+    // writes a request on the I/O thread and returns future for its response
+    private CompletableFuture<String> sendRequest(String request) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        ioExecutor.execute(() -> {
+            if (socket == null || socket.isClosed()) {
+                response.completeExceptionally(new IOException("Not connected to the server"));
+                return;
+            }
+            pendingResponses.add(response);
+            out.println(request);
+            if (out.checkError()) {
+                pendingResponses.remove(response);
+                response.completeExceptionally(new IOException("Failed to send request: " + request));
+                return;
+            }
+            System.out.println("Sent to server: " + request);
+        });
+        // a late response would be matched to the wrong request, so drop the connection on timeout
+        return response.orTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((r, e) -> {
+                    if (e instanceof TimeoutException) {
+                        System.err.println("Timed out waiting for response to: " + request);
+                        ioExecutor.execute(this::closeSocket);
+                    }
+                });
+    }
+
     // send connection request to server
-    public String connectToServer() throws IOException {
-        out.println("CONNECT|SERVER");
-        out.flush();
-        System.out.println("Sent to server: CONNECT|SERVER");
-        String response = in.readLine();
-        System.out.println("Received from server: " + response);
-        return response;
+    public CompletableFuture<String> connectToServer() {
+        return sendRequest("CONNECT|SERVER");
+    }
+
+    // resume session suspended by a restarting server
+    public CompletableFuture<String> resumeSession(String sessionId) {
+        return sendRequest("RESUME|" + sessionId);
     }
 
     // request quiz question from server
-    public String requestQuiz() throws IOException {
-        out.println("QUIZ|REQUEST");
-        out.flush();
-        System.out.println("Sent to server: QUIZ|REQUEST");
-        String response = in.readLine();
-        System.out.println("Received from server: " + response);
-        return response;
+    public CompletableFuture<String> requestQuiz() {
+        return sendRequest("QUIZ|REQUEST");
     }
 
     // send user answer to server
-    public String sendAnswer(String userAnswer) throws IOException {
-        out.println("ANSWER|" + userAnswer);
-        out.flush();
-        System.out.println("Sent to server: ANSWER|" + userAnswer);
-        String response = in.readLine();
-        System.out.println("Received from server: " + response);
-        return response;
+    public CompletableFuture<String> sendAnswer(String userAnswer) {
+        return sendRequest("ANSWER|" + userAnswer);
     }
 
-    // receive a response from server
-    public String receiveResponse() throws IOException {
-        String response = in.readLine();
-        System.out.println("Received from server: " + response);
-        return response;
+    // must be called on the I/O thread
+    private void closeSocket() {
+        Socket current = socket;
+        socket = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                System.err.println("Error closing socket: " + e.getMessage());
+            }
+        }
+        failPendingResponses(new IOException("Connection closed"));
     }
 
     // close connection to server
-    public void closeConnection() throws IOException {
+    public CompletableFuture<Void> closeConnection() {
         System.out.println("Closing connection to server...");
-        socket.close();
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(this::closeSocket, ioExecutor);
+        ioExecutor.shutdown();
+        return closed;
     }
 
     // main method launch client
     public static void main(String[] args) {
         try {
             QuizClient client = new QuizClient();
-            String response = client.connectToServer();
+            String response = client.connect()
+                    .thenCompose(v -> client.connectToServer())
+                    .join();
             System.out.println("Server response: " + response);
-        } catch (IOException e) {
+            client.closeConnection().join();
+        } catch (IOException | CompletionException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
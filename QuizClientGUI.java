@@ -2,9 +2,14 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.swing.*;
 
 public class QuizClientGUI extends JFrame {
+    private static final int BUSY_RETRY_DELAY_MS = 1000;
+    private static final int MAX_BUSY_RETRY_DELAY_MS = 16000;
+    private static final int MAX_BUSY_RETRIES = 8;
 
     private JTextArea chatArea;
     private JTextField inputField;
@@ -14,6 +19,7 @@ public class QuizClientGUI extends JFrame {
     private QuizClient quizClient;
     private int currentQuestionNumber = 0;
     private int totalQuestions = 0;
+    private String sessionId;
 
     // constructor initializes GUI
     public QuizClientGUI() {
@@ -103,42 +109,105 @@ public class QuizClientGUI extends JFrame {
         connectToServer();
     }
 
-    // connect to server
+    // connect to server, network I/O runs on the client's I/O thread
     private void connectToServer() {
         try {
             quizClient = new QuizClient();
-            String connectResponse = quizClient.connectToServer();
-
-            if (connectResponse.startsWith("200|Connection_Accepted")) {
-                totalQuestions = Integer.parseInt(connectResponse.split("\\|")[2]);
-                progressBar.setMaximum(totalQuestions);
-                startQuiz();
-            } else {
-                inputField.setEnabled(false);
-                submitButton.setEnabled(false);
-            }
         } catch (IOException e) {
             showError("Failed to connect to the server.", true);
-            inputField.setEnabled(false);
-            submitButton.setEnabled(false);
+            return;
+        }
+
+        openSession(quizClient.connect(), false, 0);
+    }
+
+    // sends CONNECT or RESUME on a freshly opened connection, retries with backoff while server is busy
+    private void openSession(CompletableFuture<Void> opened, boolean reconnecting, int busyAttempt) {
+        String resumeId = sessionId;
+        opened.thenCompose(v -> resumeId != null
+                        ? quizClient.resumeSession(resumeId)
+                        : quizClient.connectToServer())
+                .thenCompose(response -> response.startsWith("404|")
+                        ? quizClient.connectToServer()
+                        : CompletableFuture.completedFuture(response))
+                .whenComplete((connectResponse, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        showError(reconnecting
+                                ? "Failed to reconnect to the server."
+                                : "Failed to connect to the server.", true);
+                    } else if (isBusy(connectResponse)) {
+                        if (busyAttempt >= MAX_BUSY_RETRIES) {
+                            showError("The server is busy, please try again later.", true);
+                            return;
+                        }
+                        int delay = busyRetryDelay(busyAttempt);
+                        chatArea.append("Server: Busy, retrying in " + (delay + 999) / 1000 + " s...\n");
+                        retryLater(() -> openSession(quizClient.reconnect(), reconnecting, busyAttempt + 1), delay);
+                    } else if (connectResponse.startsWith("200|")) {
+                        acceptSession(connectResponse);
+                        if (connectResponse.startsWith("200|Connection_Resumed")) {
+                            chatArea.append("Server: Reconnected, resuming the quiz.\n\n");
+                        } else if (resumeId != null) {
+                            // the saved session is gone, the taker must not miss that their progress was lost
+                            chatArea.append("Server: Reconnected, the quiz has been restarted.\n\n");
+                            JOptionPane.showMessageDialog(this,
+                                    "Your previous session could not be restored.\n"
+                                            + "The quiz has been restarted with new questions and a score of 0.",
+                                    "Quiz Restarted",
+                                    JOptionPane.WARNING_MESSAGE);
+                        }
+                        startQuiz();
+                    } else {
+                        setInputEnabled(false);
+                    }
+                }));
+    }
+
+    // exponential backoff with jitter, so takers behind one NAT don't retry in lockstep
+    private static int busyRetryDelay(int attempt) {
+        int delay = Math.min(BUSY_RETRY_DELAY_MS << attempt, MAX_BUSY_RETRY_DELAY_MS);
+        return delay / 2 + ThreadLocalRandom.current().nextInt(delay / 2 + 1);
+    }
+
+    // stores question count and session id from a 200 response
+    private void acceptSession(String response) {
+        String[] parts = response.split("\\|");
+        totalQuestions = Integer.parseInt(parts[2]);
+        progressBar.setMaximum(totalQuestions);
+        if (parts.length > 3) {
+            sessionId = parts[3];
         }
     }
 
+    // reconnect after a lost connection, resumes the session if the server saved it
+    private void reconnectToServer() {
+        setInputEnabled(false);
+        chatArea.append("Server: Connection lost, reconnecting...\n");
+
+        openSession(quizClient.reconnect(), true, 0);
+    }
+
     // start the quiz
     private void startQuiz() {
-        inputField.setEnabled(true);
-        submitButton.setEnabled(true);
         requestQuiz();
     }
 
     // requests quiz question from server
     private void requestQuiz() {
-        try {
-            String response = quizClient.requestQuiz();
-            processResponse(response);
-        } catch (IOException e) {
-            showError("Failed to request quiz from the server.", false);
-        }
+        setInputEnabled(false);
+        quizClient.requestQuiz()
+                .whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        reconnectToServer();
+                        return;
+                    }
+                    if (isBusy(response)) {
+                        retryLater(this::requestQuiz, BUSY_RETRY_DELAY_MS);
+                        return;
+                    }
+                    setInputEnabled(true);
+                    processResponse(response);
+                }));
     }
 
     // send user answer to server
@@ -151,15 +220,43 @@ public class QuizClientGUI extends JFrame {
         }
 
         chatArea.append("You: " + answer + "\n");
+        inputField.setText("");
+        setInputEnabled(false);
+
+        quizClient.sendAnswer(answer)
+                .whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        // answer may not have reached the server, keep it for resubmission
+                        inputField.setText(answer);
+                        reconnectToServer();
+                        return;
+                    }
+                    if (isBusy(response)) {
+                        chatArea.append("Server: Too many requests, please submit your answer again.\n");
+                        inputField.setText(answer);
+                        setInputEnabled(true);
+                        return;
+                    }
+                    processResponse(response);
+                }));
+    }
 
-        try {
-            String response = quizClient.sendAnswer(answer);
-            processResponse(response);
-        } catch (IOException e) {
-            showError("Failed to send answer to the server.", false);
-        }
+    // returns true if server throttled the request or is overloaded
+    private static boolean isBusy(String response) {
+        return response.startsWith("429|") || response.startsWith("503|");
+    }
 
-        inputField.setText("");
+    // runs action on the EDT after a delay
+    private void retryLater(Runnable action, int delayMs) {
+        Timer timer = new Timer(delayMs, e -> action.run());
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    // enables or disables answer input while a request is in flight
+    private void setInputEnabled(boolean enabled) {
+        inputField.setEnabled(enabled);
+        submitButton.setEnabled(enabled);
     }
 
     // processes server response
@@ -187,8 +284,7 @@ public class QuizClientGUI extends JFrame {
 
         } else if (response.startsWith("501|Final_Score")) {
             chatArea.append("Server: Quiz finished. Final Score: " + response.split("\\|")[2] + "\n\n");
-            submitButton.setEnabled(false);
-            inputField.setEnabled(false);
+            setInputEnabled(false);
             progressBar.setValue(totalQuestions);
 
             // Display a modal dialog with a single "OK" button
@@ -208,11 +304,7 @@ public class QuizClientGUI extends JFrame {
     // Disconnects from the server
     private void disconnectServer() {
         if (quizClient != null) {
-            try {
-                quizClient.closeConnection();
-            } catch (IOException e) {
-                showError("Failed to disconnect from the server.", false);
-            }
+            quizClient.closeConnection();
         }
     }
 
@@ -1,14 +1,63 @@
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.*;
 
 public class QuizServer {
     private String serverAddress;
     private int port;
     private static final String QUIZ_FILE = "quiz_list.csv";
-    private ServerSocket serverSocket;
-    private List<ClientHandler> clients = new ArrayList<>();
+    private static final int HANDSHAKE_TIMEOUT_MS = 10000;
+    // rejected clients get less time, they occupy the small reject pool
+    private static final int REJECT_TIMEOUT_MS = 2000;
+    private static final int MAX_REJECT_LINE = 256;
+    // established sessions are closed after this long without a request, 0 disables the timeout
+    private static final int IDLE_TIMEOUT_MS = (int) TimeUnit.MINUTES
+            .toMillis(Integer.getInteger("quiz.idle.minutes", 30));
+    // limits, a rate of 0 disables the corresponding bucket
+    private static final int MAX_SESSIONS = Integer.getInteger("quiz.max.sessions", 500);
+    private static final int SESSION_COMMANDS_PER_SECOND = Integer.getInteger("quiz.rate.session", 5);
+    private static final int IP_CONNECTS_PER_SECOND = Integer.getInteger("quiz.rate.ip", 20);
+    // one address may be a whole classroom behind NAT, but must not be able to take every slot
+    private static final int MAX_SESSIONS_PER_IP = Integer.getInteger("quiz.max.sessions.ip", 100);
+    // shared by all sessions of one address, so more sessions do not add up to more command budget
+    private static final int IP_COMMANDS_PER_SECOND = Integer.getInteger("quiz.rate.ip.commands", 50);
+    private static final int MAX_TRACKED_IPS = 10000;
+    private static final String TOO_MANY_REQUESTS = "429|Too_Many_Requests";
+    private static final String SERVER_BUSY = "503|Server_Busy";
+    private static final String BAD_REQUEST = "400|Bad_Request";
+    private static final String SESSION_NOT_FOUND = "404|Session_Not_Found";
+    // drain waits this long for sessions to finish before suspending them
+    private static final int DRAIN_SECONDS = Integer.getInteger("quiz.drain.seconds", 60);
+    private static final int SUSPEND_WAIT_SECONDS = 5;
+    // total time busy handlers get to finish their request before their connection is closed under them
+    private static final int SUSPEND_LOCK_SECONDS = 1;
+    private static final Path SESSIONS_DIR = Paths.get(System.getProperty("quiz.sessions.dir", "sessions"));
+    // saved sessions whose takers never come back are deleted after this long
+    private static final int SESSION_TTL_MINUTES = Integer.getInteger("quiz.sessions.ttl.minutes", 120);
+    private static final int SESSION_SWEEP_MINUTES = 10;
+    private static final String[] SESSION_FILE_SUFFIXES = { ".dat", ".tmp", ".claimed", ".corrupt" };
+    private volatile ServerSocket serverSocket;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private List<ClientHandler> clients = new CopyOnWriteArrayList<>();
+    private final Map<InetAddress, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<InetAddress, TokenBucket> ipCommandBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final Map<InetAddress, Integer> ipSessions = new ConcurrentHashMap<>();
+    // rejections may need a TLS handshake, so they are written off the accept loop by a bounded pool
+    private final ExecutorService rejectExecutor = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100));
+    private final ScheduledExecutorService sessionSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "QuizServer-session-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
     private List<QuizQuestion> quizQuestions = new ArrayList<>();
     private QuizServerGUI serverGUI;
 
@@ -40,12 +89,17 @@ public class QuizServer {
             System.out.println("GUI initialized successfully.");
         });
 
+        // SIGTERM from a deploy script drains like closing the window
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain));
+        sessionSweeper.scheduleWithFixedDelay(this::sweepSessions, 0, SESSION_SWEEP_MINUTES, TimeUnit.MINUTES);
+
         new Thread(() -> {
             try {
                 System.out.println("Initializing server socket...");
-                serverSocket = new ServerSocket(port, 50, InetAddress.getByName(serverAddress));
-                System.out.println("Server socket created. Listening on " + serverAddress + ":" + port);
-                appendStatusMessage("Server started on " + serverAddress + ":" + port);
+                serverSocket = QuizTls.createServerSocket(port, 50, InetAddress.getByName(serverAddress));
+                String mode = QuizTls.isEnabled() ? " (TLS)" : "";
+                System.out.println("Server socket created. Listening on " + serverAddress + ":" + port + mode);
+                appendStatusMessage("Server started on " + serverAddress + ":" + port + mode);
 
                 loadQuizQuestions();
                 start();
@@ -59,10 +113,19 @@ public class QuizServer {
     // starts server to accept client connection
     public void start() {
         System.out.println("Quiz Server started...");
-        while (true) {
+        while (!draining.get()) {
+            Socket admittedSocket = null;
             try {
                 System.out.println("Waiting for client connections...");
                 Socket clientSocket = serverSocket.accept();
+
+                String rejection = admit(clientSocket);
+                if (rejection != null) {
+                    reject(clientSocket, rejection);
+                    continue;
+                }
+                admittedSocket = clientSocket;
+
                 System.out.println("New client connection accepted: " + clientSocket);
                 appendStatusMessage("New client connection accepted: " + clientSocket);
 
@@ -70,12 +133,227 @@ public class QuizServer {
                 clients.add(clientHandler);
                 new Thread(clientHandler).start();
             } catch (IOException e) {
+                // handler setup failed after admit, give back its slots and descriptor
+                if (admittedSocket != null) {
+                    releaseSession(admittedSocket.getInetAddress());
+                    try {
+                        admittedSocket.close();
+                    } catch (IOException ignored) {
+                        // already closed
+                    }
+                }
+                if (draining.get()) {
+                    break;
+                }
                 System.err.println("Error accepting client connection: " + e.getMessage());
                 appendStatusMessage("Error accepting client connection: " + e.getMessage());
             }
         }
     }
 
+    // stops accepting, lets sessions finish until the deadline, then suspends the rest for resumption
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            awaitDrained();
+            return;
+        }
+
+        System.out.println("Draining server, no longer accepting connections...");
+        appendStatusMessage("Draining server, no longer accepting connections...");
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+
+        awaitSessions(DRAIN_SECONDS);
+        if (activeSessions.get() > 0) {
+            System.out.println("Drain deadline reached, suspending " + activeSessions.get() + " sessions...");
+            appendStatusMessage("Drain deadline reached, suspending " + activeSessions.get() + " sessions...");
+            suspendSessions();
+            awaitSessions(SUSPEND_WAIT_SECONDS);
+        }
+
+        rejectExecutor.shutdown();
+        System.out.println("Server drained.");
+        appendStatusMessage("Server drained.");
+        drained.countDown();
+    }
+
+    // suspends idle handlers, retries busy ones until one shared deadline, then closes the rest,
+    // those save their session on the way out once the stuck write fails
+    private void suspendSessions() {
+        List<ClientHandler> pending = new ArrayList<>(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SUSPEND_LOCK_SECONDS);
+        try {
+            while (true) {
+                pending.removeIf(clientHandler -> clientHandler.trySuspend(0));
+                if (pending.isEmpty() || System.nanoTime() >= deadline) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ClientHandler clientHandler : pending) {
+            clientHandler.forceClose();
+        }
+    }
+
+    // waits until all sessions have ended or timeout has passed
+    private void awaitSessions(int seconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try {
+            while (activeSessions.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // waits for a drain started by another thread
+    private void awaitDrained() {
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // deletes saved sessions that expired and leftovers of failed saves or loads
+    private void sweepSessions() {
+        if (!Files.isDirectory(SESSIONS_DIR)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(SESSION_TTL_MINUTES);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(SESSIONS_DIR)) {
+            for (Path file : files) {
+                if (!isSessionFile(file)) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Failed to delete expired session " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to sweep sessions: " + e.getMessage());
+        }
+        if (deleted > 0) {
+            System.out.println("Deleted " + deleted + " expired session files.");
+            appendStatusMessage("Deleted " + deleted + " expired session files.");
+        }
+    }
+
+    // only files written by saveSession() and loadSession() are swept
+    private static boolean isSessionFile(Path file) {
+        String name = file.getFileName().toString();
+        for (String suffix : SESSION_FILE_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // returns rejection response if connection must be refused, null if admitted
+    private String admit(Socket clientSocket) {
+        InetAddress address = clientSocket.getInetAddress();
+        if (IP_CONNECTS_PER_SECOND > 0) {
+            if (ipBuckets.size() > MAX_TRACKED_IPS) {
+                // a full bucket behaves like a new one, so dropping it refills nobody
+                ipBuckets.values().removeIf(TokenBucket::isFull);
+                if (ipBuckets.size() > MAX_TRACKED_IPS && !ipBuckets.containsKey(address)) {
+                    return SERVER_BUSY;
+                }
+            }
+            TokenBucket bucket = ipBuckets.computeIfAbsent(address,
+                    key -> new TokenBucket(IP_CONNECTS_PER_SECOND, IP_CONNECTS_PER_SECOND * 2));
+            if (!bucket.tryAcquire()) {
+                return TOO_MANY_REQUESTS;
+            }
+        }
+
+        if (ipCommandBuckets.size() > MAX_TRACKED_IPS) {
+            ipCommandBuckets.values().removeIf(TokenBucket::isFull);
+        }
+
+        boolean[] underIpLimit = new boolean[1];
+        ipSessions.compute(address, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= MAX_SESSIONS_PER_IP) {
+                return count;
+            }
+            underIpLimit[0] = true;
+            return current + 1;
+        });
+        if (!underIpLimit[0]) {
+            return TOO_MANY_REQUESTS;
+        }
+
+        if (activeSessions.incrementAndGet() > MAX_SESSIONS) {
+            releaseSession(address);
+            return SERVER_BUSY;
+        }
+        return null;
+    }
+
+    // takes one command token of the address, returns false if all its sessions together are over the rate
+    private boolean tryAcquireIpCommand(InetAddress address) {
+        if (IP_COMMANDS_PER_SECOND <= 0) {
+            return true;
+        }
+        return ipCommandBuckets.computeIfAbsent(address,
+                key -> new TokenBucket(IP_COMMANDS_PER_SECOND, IP_COMMANDS_PER_SECOND * 2)).tryAcquire();
+    }
+
+    // frees the session slots taken by admit()
+    private void releaseSession(InetAddress address) {
+        activeSessions.decrementAndGet();
+        ipSessions.computeIfPresent(address, (key, count) -> count <= 1 ? null : count - 1);
+    }
+
+    // sends rejection response and closes connection without queueing it behind other work
+    private void reject(Socket clientSocket, String response) {
+        try {
+            rejectExecutor.execute(() -> {
+                try (Socket socket = clientSocket) {
+                    QuizTls.handshake(socket, REJECT_TIMEOUT_MS);
+                    // answer the client's first request, clients match responses to requests in order
+                    socket.setSoTimeout(REJECT_TIMEOUT_MS);
+                    skipLine(socket.getInputStream());
+                    new PrintWriter(socket.getOutputStream(), true).println(response);
+                } catch (IOException e) {
+                    // client went away, nothing to report
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            try {
+                clientSocket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    // reads up to the end of the first line, bounded so a rejected client cannot send an endless line
+    private static void skipLine(InputStream in) throws IOException {
+        for (int i = 0; i < MAX_REJECT_LINE; i++) {
+            int c = in.read();
+            if (c == -1 || c == '\n') {
+                return;
+            }
+        }
+    }
+
     // load quiz questions from quiz_list.csv file
     private void loadQuizQuestions() {
         try (BufferedReader br = new BufferedReader(new FileReader(QUIZ_FILE))) {
@@ -101,7 +379,8 @@ public class QuizServer {
     // return random subset of quiz question
     public synchronized List<QuizQuestion> getRandomQuestions(int numberOfQuestions) {
         Collections.shuffle(quizQuestions);
-        return quizQuestions.subList(0, Math.min(numberOfQuestions, quizQuestions.size()));
+        // copy, later shuffles must not change questions of running sessions
+        return new ArrayList<>(quizQuestions.subList(0, Math.min(numberOfQuestions, quizQuestions.size())));
     }
 
     // update client status in GUI
@@ -145,16 +424,29 @@ public class QuizServer {
         private Socket socket;
         private BufferedReader in;
         private PrintWriter out;
-        private String clientId;
+        // volatile, a resuming connection looks for the handler still holding its session
+        private volatile String clientId;
         private int score;
         private QuizServer server;
         private List<QuizQuestion> selectedQuestions;
         private int currentQuestionIndex = 0;
+        private SessionState state = SessionState.NEW;
+        // guards session state between the handler thread and drain
+        private final ReentrantLock lock = new ReentrantLock();
+        // set once drain or a takeover closed the connection, no more requests are processed after it
+        private volatile boolean suspended;
+        // set once session state has been persisted, guarded by the handler lock
+        private boolean saved;
+        private final TokenBucket commandBucket = SESSION_COMMANDS_PER_SECOND > 0
+                ? new TokenBucket(SESSION_COMMANDS_PER_SECOND, SESSION_COMMANDS_PER_SECOND * 2)
+                : null;
 
         // constructor to initialize client handler
         public ClientHandler(Socket socket, QuizServer server) throws IOException {
             this.socket = socket;
             this.server = server;
+            // small request/response lines, don't let Nagle hold them back
+            socket.setTcpNoDelay(true);
 
             in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             out = new PrintWriter(socket.getOutputStream(), true);
@@ -162,12 +454,19 @@ public class QuizServer {
             clientId = UUID.randomUUID().toString();
             score = 0;
             selectedQuestions = server.getRandomQuestions(10);
+        }
 
+        // shows client in GUI once its session is established or resumed
+        private void register() {
+            String id = clientId;
+            int currentScore = score;
+            int progress = currentQuestionIndex + 1;
+            int total = selectedQuestions.size();
             SwingUtilities.invokeLater(() -> {
-                serverGUI.addClient(clientId, selectedQuestions.size());
-                serverGUI.updateClientStatus(clientId, "Connected");
-                serverGUI.updateClientScore(clientId, score);
-                serverGUI.updateClientProgress(clientId, currentQuestionIndex + 1, selectedQuestions.size());
+                serverGUI.addClient(id, total);
+                serverGUI.updateClientStatus(id, "Connected");
+                serverGUI.updateClientScore(id, currentScore);
+                serverGUI.updateClientProgress(id, progress, total);
             });
 
             appendStatusMessage("Client " + clientId + " connected.");
@@ -175,30 +474,54 @@ public class QuizServer {
 
         @Override
         public void run() {
+            // the connection holds a session slot, so it must send CONNECT or RESUME within the handshake timeout
+            long establishDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HANDSHAKE_TIMEOUT_MS);
             try {
-                String request;
-                while ((request = in.readLine()) != null) {
-                    System.out.println("Received from client " + clientId + ": " + request);
-                    server.appendStatusMessage("Received from client " + clientId + ": " + request);
-
-                    if (request.equals("CONNECT|SERVER")) {
-                        out.println("200|Connection_Accepted|" + selectedQuestions.size());
-                        out.flush();
-                        server.appendStatusMessage("Sent to client " + clientId + ": 200|Connection_Accepted|"
-                                + selectedQuestions.size());
-                    } else if (request.equals("QUIZ|REQUEST")) {
-                        handleQuizRequest();
-                    } else if (request.startsWith("ANSWER|")) {
-                        handleAnswer(request);
+                // TLS handshake runs here so that slow handshakes never block the accept loop
+                QuizTls.handshake(socket, HANDSHAKE_TIMEOUT_MS);
+
+                while (true) {
+                    socket.setSoTimeout(nextReadTimeout(establishDeadline));
+                    String request = in.readLine();
+                    if (request == null) {
+                        break;
+                    }
+                    lock.lock();
+                    try {
+                        if (suspended) {
+                            break;
+                        }
+                        processRequest(request);
+                    } finally {
+                        lock.unlock();
                     }
                 }
+            } catch (SocketTimeoutException e) {
+                String reason = state == SessionState.NEW ? "did not establish a session" : "was idle too long";
+                System.out.println("Client " + clientId + " " + reason + ", closing connection.");
+                server.appendStatusMessage("Client " + clientId + " " + reason + ", closing connection.");
             } catch (IOException e) {
-                System.err.println("Error communicating with client " + clientId + ": " + e.getMessage());
-                server.appendStatusMessage("Error communicating with client " + clientId + ": " + e.getMessage());
+                if (!suspended) {
+                    System.err.println("Error communicating with client " + clientId + ": " + e.getMessage());
+                    server.appendStatusMessage("Error communicating with client " + clientId + ": "
+                            + e.getMessage());
+                }
             } finally {
+                // any dropped connection stays resumable, not only the ones suspended by drain
+                lock.lock();
+                try {
+                    saveIfResumable();
+                } finally {
+                    lock.unlock();
+                }
+                releaseSession(socket.getInetAddress());
+                clients.remove(this);
                 try {
                     socket.close();
-                    server.updateClientStatus(clientId, "Disconnected");
+                    // a connection that took the session over already shows it as connected
+                    if (clients.stream().noneMatch(c -> c.clientId.equals(clientId))) {
+                        server.updateClientStatus(clientId, saved ? "Suspended" : "Disconnected");
+                    }
                     server.appendStatusMessage("Client " + clientId + " disconnected.");
                 } catch (IOException e) {
                     System.err.println("Error closing client socket: " + e.getMessage());
@@ -207,9 +530,222 @@ public class QuizServer {
             }
         }
 
+        // read timeout for the next request, the remaining establish time until CONNECT or RESUME succeeded
+        private int nextReadTimeout(long establishDeadline) throws SocketTimeoutException {
+            if (state != SessionState.NEW) {
+                return IDLE_TIMEOUT_MS;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(establishDeadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Session not established in time");
+            }
+            return (int) remaining;
+        }
+
+        // handles one request line, must be called holding the handler lock
+        private void processRequest(String request) {
+            // throttled and out-of-order commands are answered before any logging or GUI work
+            if ((commandBucket != null && !commandBucket.tryAcquire())
+                    || !tryAcquireIpCommand(socket.getInetAddress())) {
+                out.println(TOO_MANY_REQUESTS);
+                return;
+            }
+            if (!isExpected(request)) {
+                out.println(BAD_REQUEST);
+                return;
+            }
+
+            System.out.println("Received from client " + clientId + ": " + request);
+            server.appendStatusMessage("Received from client " + clientId + ": " + request);
+
+            if (request.equals("CONNECT|SERVER")) {
+                handleConnect();
+            } else if (request.startsWith("RESUME|")) {
+                handleResume(request);
+            } else if (request.equals("QUIZ|REQUEST")) {
+                handleQuizRequest();
+            } else if (request.startsWith("ANSWER|")) {
+                handleAnswer(request);
+            }
+        }
+
+        // checks that command is allowed in the current session state
+        private boolean isExpected(String request) {
+            switch (state) {
+                case NEW:
+                    return request.equals("CONNECT|SERVER") || request.startsWith("RESUME|");
+                case READY:
+                case FINISHED:
+                    return request.equals("QUIZ|REQUEST");
+                case ANSWERING:
+                    return request.startsWith("ANSWER|");
+                default:
+                    return false;
+            }
+        }
+
+        // handles connection request from client, session id lets client resume after a restart
+        private void handleConnect() {
+            String response = "200|Connection_Accepted|" + selectedQuestions.size() + "|" + clientId;
+            out.println(response);
+            state = SessionState.READY;
+            server.appendStatusMessage("Sent to client " + clientId + ": " + response);
+            register();
+        }
+
+        // handles resume request for a session saved by a dropped connection or a draining server
+        private void handleResume(String request) {
+            String sessionId = request.substring(7);
+            boolean resumed = loadSession(sessionId);
+            if (!resumed && takeOver(sessionId)) {
+                resumed = loadSession(sessionId);
+            }
+            if (!resumed) {
+                out.println(SESSION_NOT_FOUND);
+                server.appendStatusMessage("Sent to client " + clientId + ": " + SESSION_NOT_FOUND);
+                return;
+            }
+
+            String response = "200|Connection_Resumed|" + selectedQuestions.size() + "|" + clientId;
+            out.println(response);
+            state = SessionState.READY;
+            server.appendStatusMessage("Sent to client " + clientId + ": " + response);
+            register();
+        }
+
+        // the server may not have noticed yet that the taker's old connection is gone, e.g. after a network blip,
+        // so the handler still holding the session saves it and hands it over
+        private boolean takeOver(String sessionId) {
+            for (ClientHandler clientHandler : clients) {
+                if (clientHandler != this && clientHandler.clientId.equals(sessionId)) {
+                    return clientHandler.trySuspend(TimeUnit.SECONDS.toMillis(SUSPEND_LOCK_SECONDS));
+                }
+            }
+            return false;
+        }
+
+        // persists session state and closes connection, called by drain and by a resuming connection
+        // returns false if the handler stayed busy with a request for longer than timeoutMs
+        public boolean trySuspend(long timeoutMs) {
+            try {
+                if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            try {
+                saveIfResumable();
+                forceClose();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // saves a session that has started and not finished yet, at most once, must be called holding the lock
+        private void saveIfResumable() {
+            if (saved || (state != SessionState.READY && state != SessionState.ANSWERING)) {
+                return;
+            }
+            try {
+                saveSession();
+                saved = true;
+            } catch (IOException e) {
+                System.err.println("Failed to save session " + clientId + ": " + e.getMessage());
+                server.appendStatusMessage("Failed to save session " + clientId + ": " + e.getMessage());
+            }
+        }
+
+        // closes connection without waiting for the lock, for handlers stuck writing to a client that stopped reading
+        public void forceClose() {
+            suspended = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing client socket: " + e.getMessage());
+            }
+        }
+
+        // writes score, position and questions, an unanswered question is asked again after resume
+        private void saveSession() throws IOException {
+            int resumeIndex = state == SessionState.ANSWERING ? currentQuestionIndex - 1 : currentQuestionIndex;
+            List<String> lines = new ArrayList<>();
+            lines.add(String.valueOf(score));
+            lines.add(String.valueOf(resumeIndex));
+            for (QuizQuestion question : selectedQuestions) {
+                lines.add(question.getQuestion() + "\t" + question.getAnswer());
+            }
+
+            Files.createDirectories(SESSIONS_DIR);
+            Path temp = SESSIONS_DIR.resolve(clientId + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, SESSIONS_DIR.resolve(clientId + ".dat"), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Saved session " + clientId + " for resumption.");
+            server.appendStatusMessage("Saved session " + clientId + " for resumption.");
+        }
+
+        // claims and loads a saved session, returns false if there is none
+        private boolean loadSession(String sessionId) {
+            try {
+                // only well-formed ids, so the id can never escape the sessions directory
+                if (!UUID.fromString(sessionId).toString().equals(sessionId)) {
+                    return false;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+
+            // atomic rename so that only one connection can claim the session
+            Path claimed = SESSIONS_DIR.resolve(sessionId + ".claimed");
+            try {
+                Files.move(SESSIONS_DIR.resolve(sessionId + ".dat"), claimed, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                return false;
+            }
+
+            int savedScore;
+            int savedIndex;
+            List<QuizQuestion> questions = new ArrayList<>();
+            try {
+                List<String> lines = Files.readAllLines(claimed, StandardCharsets.UTF_8);
+                for (String line : lines.subList(2, lines.size())) {
+                    String[] parts = line.split("\t", 2);
+                    questions.add(new QuizQuestion(parts[0], parts[1]));
+                }
+                savedScore = Integer.parseInt(lines.get(0));
+                savedIndex = Integer.parseInt(lines.get(1));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to load session " + sessionId + ": " + e.getMessage());
+                server.appendStatusMessage("Failed to load session " + sessionId + ": " + e.getMessage());
+                // keep the file for inspection, the expiry sweep removes it later
+                try {
+                    Files.move(claimed, SESSIONS_DIR.resolve(sessionId + ".corrupt"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ignored) {
+                    // left as .claimed, the sweep removes it as well
+                }
+                return false;
+            }
+
+            try {
+                Files.delete(claimed);
+            } catch (IOException e) {
+                System.err.println("Failed to delete claimed session " + sessionId + ": " + e.getMessage());
+            }
+            score = savedScore;
+            currentQuestionIndex = savedIndex;
+            selectedQuestions = questions;
+            clientId = sessionId;
+            return true;
+        }
+
         // handles quiz requests from client
         private void handleQuizRequest() {
             if (currentQuestionIndex >= selectedQuestions.size()) {
+                state = SessionState.FINISHED;
                 String finalScore = score + "/" + selectedQuestions.size();
                 out.println("501|Final_Score|" + finalScore);
                 server.appendStatusMessage("Sent to client " + clientId + ": 501|Final_Score|" + finalScore);
@@ -220,6 +756,7 @@ public class QuizServer {
             String response = "301|Quiz_Content|" + currentQuestion.getQuestion() + "|" + currentQuestionIndex + "/"
                     + selectedQuestions.size();
             out.println(response);
+            state = SessionState.ANSWERING;
             server.appendStatusMessage("Sent to client " + clientId + ": " + response);
             server.updateClientProgress(clientId, currentQuestionIndex, selectedQuestions.size());
         }
@@ -234,11 +771,50 @@ public class QuizServer {
 
             String response = correct ? "401|Correct_Answer" : "402|Wrong_Answer";
             out.println(response);
+            state = SessionState.READY;
             server.appendStatusMessage("Sent to client " + clientId + ": " + response);
             server.updateClientScore(clientId, score);
         }
     }
 
+    // protocol state of a client session
+    private enum SessionState {
+        NEW, READY, ANSWERING, FINISHED
+    }
+
+    // lock-free token bucket, stores the time at which the bucket will be full again
+    private static class TokenBucket {
+        private final long nanosPerToken;
+        private final long burstNanos;
+        private final AtomicLong fullAt;
+
+        public TokenBucket(int tokensPerSecond, int burst) {
+            this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+            this.burstNanos = nanosPerToken * burst;
+            this.fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        // returns true if bucket has refilled completely
+        public boolean isFull() {
+            return fullAt.get() - System.nanoTime() <= 0;
+        }
+
+        // takes one token, returns false if bucket is empty
+        public boolean tryAcquire() {
+            while (true) {
+                long now = System.nanoTime();
+                long current = fullAt.get();
+                long next = Math.max(current, now) + nanosPerToken;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+
     // inner class to represent a quiz question
     public static class QuizQuestion {
         private String question;
@@ -253,6 +829,10 @@ public class QuizServer {
             return question;
         }
 
+        public String getAnswer() {
+            return answer;
+        }
+
         public boolean isCorrectAnswer(String userAnswer) {
             return answer.equalsIgnoreCase(userAnswer.trim());
         }
@@ -1,5 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,7 +16,18 @@ public class QuizServerGUI extends JFrame {
     public QuizServerGUI(QuizServer server) {
         setTitle("Quiz Server");
         setSize(1000, 700);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        // drain running sessions before exiting instead of killing them
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                setTitle("Quiz Server (draining)");
+                new Thread(() -> {
+                    server.drain();
+                    System.exit(0);
+                }).start();
+            }
+        });
         setLayout(new BorderLayout());
 
         clientStatusLabels = new HashMap<>();
@@ -67,6 +80,10 @@ public class QuizServerGUI extends JFrame {
 
     // add a new client to GUI
     public void addClient(String clientId, int totalQuestions) {
+        // a resumed session keeps its row
+        if (clientStatusLabels.containsKey(clientId)) {
+            return;
+        }
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.insets = new Insets(10, 10, 10, 10);
@@ -0,0 +1,139 @@
+import java.io.*;
+import java.net.*;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import javax.net.ssl.*;
+
+// optional TLS transport shared by QuizServer and QuizClient, enabled with -Dquiz.tls=true
+public class QuizTls {
+    // server key and certificate, only needed by the server
+    private static final String DEFAULT_KEYSTORE = "quiz_test.p12";
+    // certificate only, this is what takers get
+    private static final String DEFAULT_TRUSTSTORE = "quiz_test_trust.p12";
+    private static final String DEFAULT_PASSWORD = "changeit";
+    private static final String[] PROTOCOLS = { "TLSv1.3", "TLSv1.2" };
+    private static final int SESSION_CACHE_SIZE = 10000;
+    private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private static SSLContext serverContext;
+    private static SSLContext clientContext;
+
+    private QuizTls() {
+    }
+
+    // returns true if TLS mode is enabled
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("quiz.tls");
+    }
+
+    // creates listening socket, TLS if enabled
+    public static ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+        ServerSocket serverSocket;
+        if (isEnabled()) {
+            SSLServerSocket sslServerSocket = (SSLServerSocket) getServerContext().getServerSocketFactory()
+                    .createServerSocket();
+            sslServerSocket.setEnabledProtocols(PROTOCOLS);
+            serverSocket = sslServerSocket;
+        } else {
+            serverSocket = new ServerSocket();
+        }
+        serverSocket.setReuseAddress(true);
+        // opt-in port sharing lets a restarted server bind the port while the old one is still draining,
+        // off by default so that a second server started by mistake fails to bind
+        if (Boolean.getBoolean("quiz.handoff")) {
+            if (serverSocket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                serverSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            } else {
+                System.err.println("SO_REUSEPORT is not supported, start the new server after the old one has drained");
+            }
+        }
+        serverSocket.bind(new InetSocketAddress(address, port), backlog);
+        return serverSocket;
+    }
+
+    // creates unconnected client socket, TLS if enabled
+    public static Socket createSocket() throws IOException {
+        if (!isEnabled()) {
+            return new Socket();
+        }
+        SSLSocket socket = (SSLSocket) getClientContext().getSocketFactory().createSocket();
+        SSLParameters parameters = socket.getSSLParameters();
+        parameters.setProtocols(PROTOCOLS);
+        // check that the certificate matches the host from server_info.dat
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        socket.setSSLParameters(parameters);
+        return socket;
+    }
+
+    // performs the TLS handshake on the calling thread, no-op for plain sockets
+    public static void handshake(Socket socket, int timeoutMs) throws IOException {
+        if (!(socket instanceof SSLSocket)) {
+            return;
+        }
+        int previousTimeout = socket.getSoTimeout();
+        socket.setSoTimeout(timeoutMs);
+        ((SSLSocket) socket).startHandshake();
+        socket.setSoTimeout(previousTimeout);
+    }
+
+    // one context per process so the server session cache is reused across connections
+    private static synchronized SSLContext getServerContext() throws IOException {
+        if (serverContext == null) {
+            String keystoreFile = System.getProperty("quiz.tls.keystore", DEFAULT_KEYSTORE);
+            String password = System.getProperty("quiz.tls.password", DEFAULT_PASSWORD);
+            KeyStore keyStore = loadKeyStore(keystoreFile, password);
+            try {
+                KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                kmf.init(keyStore, password.toCharArray());
+                serverContext = createContext(kmf.getKeyManagers(), null);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to initialize TLS: " + e.getMessage(), e);
+            }
+            System.out.println("TLS enabled using keystore " + keystoreFile);
+        }
+        return serverContext;
+    }
+
+    // one context per process so reconnects resume the cached session, trusts only the trust store
+    private static synchronized SSLContext getClientContext() throws IOException {
+        if (clientContext == null) {
+            String truststoreFile = System.getProperty("quiz.tls.truststore", DEFAULT_TRUSTSTORE);
+            KeyStore trustStore = loadKeyStore(truststoreFile,
+                    System.getProperty("quiz.tls.truststore.password", DEFAULT_PASSWORD));
+            try {
+                TrustManagerFactory tmf = TrustManagerFactory
+                        .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                tmf.init(trustStore);
+                clientContext = createContext(null, tmf.getTrustManagers());
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to initialize TLS: " + e.getMessage(), e);
+            }
+            System.out.println("TLS enabled using trust store " + truststoreFile);
+        }
+        return clientContext;
+    }
+
+    // loads a PKCS12 file
+    private static KeyStore loadKeyStore(String file, String password) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(is, password.toCharArray());
+            return keyStore;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to load " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // session cache and TLS 1.3 tickets let reconnecting clients skip the full handshake
+    private static SSLContext createContext(KeyManager[] keyManagers, TrustManager[] trustManagers)
+            throws GeneralSecurityException {
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagers, trustManagers, null);
+        for (SSLSessionContext sessions : new SSLSessionContext[] {
+                sslContext.getServerSessionContext(), sslContext.getClientSessionContext() }) {
+            sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+        }
+        return sslContext;
+    }
+}